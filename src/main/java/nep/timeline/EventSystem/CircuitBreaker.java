@@ -0,0 +1,78 @@
+package nep.timeline.EventSystem;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Failure policy for {@link EventBus.Builder#circuitBreaker(CircuitBreaker)}. A handler that fails
+ * {@code failureThreshold} times within {@code window} is quarantined: it is removed from dispatch
+ * for {@code coolDown}, then put back for a single half-open trial. Errors are passed to the
+ * {@link EventErrorHandler} at most once per {@code reportInterval} per handler.
+ */
+public final class CircuitBreaker {
+    private final int failureThreshold;
+    private final Duration window;
+    private final Duration coolDown;
+    private final Duration reportInterval;
+
+    private CircuitBreaker(int failureThreshold, Duration window, Duration coolDown, Duration reportInterval) {
+        this.failureThreshold = failureThreshold;
+        this.window = window;
+        this.coolDown = coolDown;
+        this.reportInterval = reportInterval;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public Duration getCoolDown() {
+        return coolDown;
+    }
+
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+
+    public static final class Builder {
+        private int failureThreshold = 5;
+        private Duration window = Duration.ofSeconds(10);
+        private Duration coolDown = Duration.ofSeconds(30);
+        private Duration reportInterval = Duration.ofSeconds(1);
+
+        public Builder failureThreshold(int failureThreshold) {
+            if (failureThreshold < 1) {
+                throw new IllegalArgumentException("failureThreshold must be positive");
+            }
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        public Builder window(Duration window) {
+            this.window = Objects.requireNonNull(window, "window");
+            return this;
+        }
+
+        public Builder coolDown(Duration coolDown) {
+            this.coolDown = Objects.requireNonNull(coolDown, "coolDown");
+            return this;
+        }
+
+        public Builder reportInterval(Duration reportInterval) {
+            this.reportInterval = Objects.requireNonNull(reportInterval, "reportInterval");
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(failureThreshold, window, coolDown, reportInterval);
+        }
+    }
+}
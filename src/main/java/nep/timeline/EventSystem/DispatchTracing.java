@@ -0,0 +1,223 @@
+package nep.timeline.EventSystem;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flight recorder events for {@link EventBus} dispatch. Every entry point allocates its own JFR
+ * event and returns {@code null} unless {@link jdk.jfr.Event#isEnabled()} says a recording wants
+ * it, so callers pay a single branch (the allocation is eliminated by escape analysis) when nothing
+ * is recording.
+ *
+ * <p>Correlation is separate and only used by buses built with {@code correlate(true)}: the event
+ * whose handler is running is kept in a thread local, set and restored around every handler call,
+ * and an event posted from that handler inherits its id on the posting thread, before it is queued
+ * anywhere.</p>
+ */
+final class DispatchTracing {
+    private static final AtomicLong CORRELATION_IDS = new AtomicLong();
+    private static final ThreadLocal<EventCore> CURRENT = new ThreadLocal<>();
+
+    private DispatchTracing() {
+    }
+
+    static PostEvent beginPost(EventCore event, boolean async) {
+        PostEvent trace = new PostEvent();
+        if (!trace.isEnabled()) {
+            return null;
+        }
+        trace.begin();
+        trace.eventClass = event.getClass().getName();
+        trace.channel = String.valueOf(event.getEvent());
+        trace.correlationId = correlate(event);
+        trace.async = async;
+        return trace;
+    }
+
+    static void endPost(PostEvent trace, EventCore event, int handlers) {
+        trace.end();
+        if (trace.shouldCommit()) {
+            trace.handlers = handlers;
+            trace.cancelled = event.isCancelled();
+            trace.commit();
+        }
+    }
+
+    static HandlerEvent beginHandler(MethodHandler handler, EventCore event) {
+        HandlerEvent trace = new HandlerEvent();
+        if (!trace.isEnabled()) {
+            return null;
+        }
+        trace.begin();
+        trace.eventClass = event.getClass().getName();
+        trace.listenerClass = handler.getListener().getClass().getName();
+        trace.method = handler.getMethod().getName();
+        trace.correlationId = correlate(event);
+        return trace;
+    }
+
+    static void endHandler(HandlerEvent trace, boolean failed) {
+        trace.end();
+        if (trace.shouldCommit()) {
+            trace.failed = failed;
+            trace.commit();
+        }
+    }
+
+    static Runnable queued(MethodHandler handler, EventCore event, Runnable task) {
+        AsyncQueueEvent trace = new AsyncQueueEvent();
+        if (!trace.isEnabled()) {
+            return task;
+        }
+        trace.begin();
+        trace.eventClass = event.getClass().getName();
+        trace.listenerClass = handler.getListener().getClass().getName();
+        trace.method = handler.getMethod().getName();
+        trace.correlationId = correlate(event);
+        return () -> {
+            trace.end();
+            trace.commit();
+            task.run();
+        };
+    }
+
+    static void cancelled(EventCore event, List<MethodHandler> handlers, int from) {
+        CancelEvent trace = new CancelEvent();
+        if (!trace.isEnabled()) {
+            return;
+        }
+        int skipped = 0;
+        for (int i = from; i < handlers.size(); i++) {
+            if (handlers.get(i).matches(event)) {
+                skipped++;
+            }
+        }
+        trace.eventClass = event.getClass().getName();
+        trace.correlationId = correlate(event);
+        trace.skippedHandlers = skipped;
+        trace.commit();
+    }
+
+    static void inherit(EventCore event) {
+        if (event.getCorrelationId() != 0) {
+            return;
+        }
+        EventCore parent = CURRENT.get();
+        if (parent != null) {
+            event.assignCorrelationId(correlate(parent));
+        }
+    }
+
+    static EventCore enter(EventCore event) {
+        EventCore previous = CURRENT.get();
+        CURRENT.set(event);
+        return previous;
+    }
+
+    static void exit(EventCore previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private static long correlate(EventCore event) {
+        long id = event.getCorrelationId();
+        if (id != 0) {
+            return id;
+        }
+        return event.assignCorrelationId(CORRELATION_IDS.incrementAndGet());
+    }
+
+    @Name("nep.timeline.EventSystem.Post")
+    @Label("Event Post")
+    @Category("EventSystem")
+    @Description("Dispatch of one event to its matching handlers")
+    @StackTrace(false)
+    static final class PostEvent extends jdk.jfr.Event {
+        @Label("Event Class")
+        String eventClass;
+
+        @Label("Channel")
+        String channel;
+
+        @Label("Correlation Id")
+        long correlationId;
+
+        @Label("Async")
+        boolean async;
+
+        @Label("Handlers")
+        int handlers;
+
+        @Label("Cancelled")
+        boolean cancelled;
+    }
+
+    @Name("nep.timeline.EventSystem.Handler")
+    @Label("Handler Invocation")
+    @Category("EventSystem")
+    @Description("One listener method handling one event")
+    @StackTrace(false)
+    @Enabled(false)
+    static final class HandlerEvent extends jdk.jfr.Event {
+        @Label("Event Class")
+        String eventClass;
+
+        @Label("Listener Class")
+        String listenerClass;
+
+        @Label("Method")
+        String method;
+
+        @Label("Correlation Id")
+        long correlationId;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("nep.timeline.EventSystem.AsyncQueue")
+    @Label("Async Handler Queueing")
+    @Category("EventSystem")
+    @Description("Time an async handler waited in the executor queue before it started")
+    @StackTrace(false)
+    static final class AsyncQueueEvent extends jdk.jfr.Event {
+        @Label("Event Class")
+        String eventClass;
+
+        @Label("Listener Class")
+        String listenerClass;
+
+        @Label("Method")
+        String method;
+
+        @Label("Correlation Id")
+        long correlationId;
+    }
+
+    @Name("nep.timeline.EventSystem.Cancelled")
+    @Label("Cancellation Short-Circuit")
+    @Category("EventSystem")
+    @Description("Dispatch stopped early because the event was cancelled")
+    @StackTrace(false)
+    static final class CancelEvent extends jdk.jfr.Event {
+        @Label("Event Class")
+        String eventClass;
+
+        @Label("Correlation Id")
+        long correlationId;
+
+        @Label("Skipped Handlers")
+        @Description("Remaining handlers that would have run on the cancelled event")
+        int skippedHandlers;
+    }
+}
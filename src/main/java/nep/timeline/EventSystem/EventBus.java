@@ -1,14 +1,20 @@
 package nep.timeline.EventSystem;
 
+import nep.timeline.EventSystem.type.CircuitState;
+
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -26,24 +32,48 @@ public final class EventBus implements AutoCloseable {
     private final boolean ownsExecutor;
     private final boolean stopOnCancelled;
     private final EventErrorHandler errorHandler;
+    private final EventLoop eventLoop;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<MethodHandler, HandlerCircuit> circuits = new ConcurrentHashMap<>();
+    private final Set<MethodHandler> probing = ConcurrentHashMap.newKeySet();
+    private List<HandlerCircuit> quarantined = List.of();
+    private volatile boolean hasQuarantined;
+    private volatile long nextProbe;
+    private final ListenerIndex listenerIndex;
+    private final boolean correlate;
+    private volatile boolean frozen;
     private volatile List<MethodHandler> handlers = List.of();
+    private volatile HandlerIndex index = new HandlerIndex(List.of());
 
     public EventBus() {
-        this(Executors.newCachedThreadPool(namedThreadFactory("event-bus-", true)), true, false, EventErrorHandler.logging());
+        this(Executors.newCachedThreadPool(namedThreadFactory("event-bus-", true)), true, false, EventErrorHandler.logging(), null, null, null, false);
     }
 
     public EventBus(ExecutorService executorService) {
-        this(executorService, false, false, EventErrorHandler.logging());
+        this(executorService, false, false, EventErrorHandler.logging(), null, null, null, false);
     }
 
     private EventBus(ExecutorService executorService,
                      boolean ownsExecutor,
                      boolean stopOnCancelled,
-                     EventErrorHandler errorHandler) {
+                     EventErrorHandler errorHandler,
+                     ThreadFactory loopThreadFactory,
+                     CircuitBreaker circuitBreaker,
+                     ListenerIndex listenerIndex,
+                     boolean correlate) {
         this.executor = Objects.requireNonNull(executorService, "executorService");
         this.ownsExecutor = ownsExecutor;
         this.stopOnCancelled = stopOnCancelled;
         this.errorHandler = Objects.requireNonNull(errorHandler, "errorHandler");
+        this.circuitBreaker = circuitBreaker;
+        this.listenerIndex = listenerIndex;
+        this.correlate = correlate;
+        if (loopThreadFactory == null) {
+            this.eventLoop = null;
+        } else {
+            this.eventLoop = new EventLoop(this, loopThreadFactory);
+            this.eventLoop.start();
+        }
     }
 
     public static Builder builder() {
@@ -60,22 +90,90 @@ public final class EventBus implements AutoCloseable {
             if (listener == null) {
                 continue;
             }
-            additions.addAll(collectHandlers(listener));
+            List<MethodHandler> indexed = listenerIndex == null ? null : listenerIndex.resolve(listener);
+            additions.addAll(indexed == null ? collectHandlers(listener) : indexed);
         }
 
+        registerHandlers(additions);
+    }
+
+    public void registerAll(Collection<?> listeners) {
+        if (listeners == null || listeners.isEmpty()) {
+            return;
+        }
+        register(listeners.toArray());
+    }
+
+    void registerHandlers(List<MethodHandler> additions) {
+        checkNotFrozen();
         if (additions.isEmpty()) {
             return;
         }
 
         synchronized (lock) {
+            checkNotFrozen();
             List<MethodHandler> updated = new ArrayList<>(handlers);
+            Set<MethodHandler> present = new HashSet<>(updated);
             for (MethodHandler handler : additions) {
-                if (!updated.contains(handler)) {
+                if (present.add(handler)) {
                     updated.add(handler);
                 }
             }
             updated.sort(PRIORITY_ORDER);
-            handlers = Collections.unmodifiableList(updated);
+            publish(updated);
+            if (!circuits.isEmpty()) {
+                resetCircuits(new HashSet<>(additions));
+            }
+        }
+    }
+
+    private void resetCircuits(Set<MethodHandler> registered) {
+        circuits.keySet().removeIf(registered::contains);
+        probing.removeIf(registered::contains);
+        if (!quarantined.isEmpty()) {
+            List<HandlerCircuit> remaining = quarantined.stream()
+                    .filter(circuit -> !registered.contains(circuit.getHandler()))
+                    .collect(Collectors.toList());
+            updateQuarantined(remaining);
+        }
+    }
+
+    /**
+     * Makes the registry read-only and prepares it for dispatch: every handler's invoker is built
+     * and the dispatch index is filled for each handler parameter type plus the given event
+     * classes. Dispatch of any other event class (a subclass, or an event only matched by
+     * {@link EventList}) fills its index entry on first use.
+     *
+     * <p>Once frozen, {@link #register(Object...)}, {@link #registerAll(Collection)},
+     * {@link #unregister(Object...)}, {@link #clear()} and creating an {@link EventPublisher} throw
+     * {@link EventException}. Closing an existing publisher still works. A configured
+     * {@link CircuitBreaker} may still quarantine and restore handlers; the index is then rebuilt
+     * for every event class it already held.</p>
+     */
+    @SafeVarargs
+    public final void freeze(Class<? extends EventCore>... eventTypes) {
+        synchronized (lock) {
+            frozen = true;
+            HandlerIndex current = index;
+            for (MethodHandler handler : handlers) {
+                handler.prepare();
+                if (handler.getParameterType() != null) {
+                    current.forEvent(handler.getParameterType());
+                }
+            }
+            for (Class<? extends EventCore> eventType : eventTypes) {
+                current.forEvent(eventType);
+            }
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new EventException("EventBus is frozen");
         }
     }
 
@@ -92,53 +190,151 @@ public final class EventBus implements AutoCloseable {
         }
 
         synchronized (lock) {
+            checkNotFrozen();
             if (handlers.isEmpty()) {
                 return;
             }
             List<MethodHandler> updated = handlers.stream()
                     .filter(handler -> !toRemove.contains(handler.getListener()))
                     .collect(Collectors.toCollection(ArrayList::new));
-            handlers = Collections.unmodifiableList(updated);
+            publish(updated);
+            if (!circuits.isEmpty()) {
+                circuits.keySet().removeIf(handler -> toRemove.contains(handler.getListener()));
+                probing.removeIf(handler -> toRemove.contains(handler.getListener()));
+                List<HandlerCircuit> remaining = quarantined.stream()
+                        .filter(circuit -> !toRemove.contains(circuit.getHandler().getListener()))
+                        .collect(Collectors.toList());
+                updateQuarantined(remaining);
+            }
         }
     }
 
     public void clear() {
         synchronized (lock) {
-            handlers = List.of();
+            checkNotFrozen();
+            publish(List.of());
+            circuits.clear();
+            probing.clear();
+            updateQuarantined(List.of());
+        }
+    }
+
+    public List<MethodHandler> getQuarantinedHandlers() {
+        synchronized (lock) {
+            return quarantined.stream()
+                    .map(HandlerCircuit::getHandler)
+                    .collect(Collectors.toUnmodifiableList());
         }
     }
 
     public EventCore post(EventCore event) {
+        Objects.requireNonNull(event, "event");
+        if (correlate) {
+            DispatchTracing.inherit(event);
+        }
+        if (eventLoop != null) {
+            CompletableFuture<EventCore> queued = eventLoop.submit(event);
+            return eventLoop.inLoop() ? event : queued.join();
+        }
         dispatch(event, false).join();
         return event;
     }
 
     public CompletableFuture<EventCore> postAsync(EventCore event) {
+        Objects.requireNonNull(event, "event");
+        if (correlate) {
+            DispatchTracing.inherit(event);
+        }
+        if (eventLoop != null) {
+            return eventLoop.submit(event);
+        }
         return dispatch(event, true).thenApply(ignored -> event);
     }
 
+    public boolean isEventLoopThread() {
+        return eventLoop != null && eventLoop.inLoop();
+    }
+
+    public <T extends EventCore> EventPublisher<T> publisher(Class<T> eventType) {
+        return EventPublisher.builder(this, eventType).build();
+    }
+
+    public EventPublisher<EventCore> publisher(EventList channel) {
+        return EventPublisher.builder(this, EventCore.class).channel(channel).build();
+    }
+
+    public <T extends EventCore> EventSubscriber<T> subscriber() {
+        return new EventSubscriber<>(this);
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    EventErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    void dispatchInline(EventCore event) {
+        if (hasQuarantined) {
+            releaseQuarantined();
+        }
+        DispatchTracing.PostEvent trace = DispatchTracing.beginPost(event, false);
+        List<MethodHandler> snapshot = index.forEvent(event.getClass());
+        int invoked = 0;
+
+        for (int i = 0; i < snapshot.size(); i++) {
+            MethodHandler handler = snapshot.get(i);
+            if (stopOnCancelled && event.isCancelled()) {
+                DispatchTracing.cancelled(event, snapshot, i);
+                break;
+            }
+            if (handler.matches(event)) {
+                invoke(handler, event);
+                invoked++;
+            }
+        }
+
+        if (trace != null) {
+            DispatchTracing.endPost(trace, event, invoked);
+        }
+    }
+
     private CompletableFuture<Void> dispatch(EventCore event, boolean asyncDispatch) {
         Objects.requireNonNull(event, "event");
+        if (hasQuarantined) {
+            releaseQuarantined();
+        }
 
-        List<MethodHandler> snapshot = handlers;
+        DispatchTracing.PostEvent trace = DispatchTracing.beginPost(event, asyncDispatch);
+        List<MethodHandler> snapshot = index.forEvent(event.getClass());
         List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int invoked = 0;
 
-        for (MethodHandler handler : snapshot) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            MethodHandler handler = snapshot.get(i);
             if (stopOnCancelled && event.isCancelled()) {
+                DispatchTracing.cancelled(event, snapshot, i);
                 break;
             }
             if (!handler.matches(event)) {
                 continue;
             }
 
+            invoked++;
             Runnable task = () -> invoke(handler, event);
             if (asyncDispatch || handler.isAsync()) {
+                task = DispatchTracing.queued(handler, event, task);
                 futures.add(CompletableFuture.runAsync(task, executor));
             } else {
                 task.run();
             }
         }
 
+        if (trace != null) {
+            DispatchTracing.endPost(trace, event, invoked);
+        }
+
         if (futures.isEmpty()) {
             return CompletableFuture.completedFuture(null);
         }
@@ -146,35 +342,153 @@ public final class EventBus implements AutoCloseable {
     }
 
     private void invoke(MethodHandler handler, EventCore event) {
+        DispatchTracing.HandlerEvent trace = DispatchTracing.beginHandler(handler, event);
+        EventCore parent = correlate ? DispatchTracing.enter(event) : null;
+        boolean failed = false;
         try {
-            Method method = handler.getMethod();
-            Object listener = handler.getListener();
-            if (!method.canAccess(listener)) {
-                method.setAccessible(true);
-            }
-            if (handler.getParameterType() == null) {
-                method.invoke(listener);
-            } else {
-                method.invoke(listener, event);
+            handler.invoke(event);
+            if (!probing.isEmpty() && probing.remove(handler)) {
+                closeCircuit(handler);
             }
         } catch (Throwable throwable) {
-            Throwable cause = throwable;
-            if (throwable instanceof java.lang.reflect.InvocationTargetException && throwable.getCause() != null) {
-                cause = throwable.getCause();
+            failed = true;
+            handleFailure(handler, event, throwable);
+        } finally {
+            if (correlate) {
+                DispatchTracing.exit(parent);
+            }
+            if (trace != null) {
+                DispatchTracing.endHandler(trace, failed);
+            }
+        }
+    }
+
+    private void handleFailure(MethodHandler handler, EventCore event, Throwable cause) {
+        if (circuitBreaker == null) {
+            errorHandler.onError(System.err, event, handler.getListener(), handler.getMethod(), cause);
+            return;
+        }
+
+        long now = System.nanoTime();
+        HandlerCircuit circuit = circuits.computeIfAbsent(handler, HandlerCircuit::new);
+        if (circuit.shouldReport(now, circuitBreaker)) {
+            errorHandler.onError(System.err, event, handler.getListener(), handler.getMethod(), cause);
+        }
+        if (circuit.recordFailure(now, circuitBreaker)) {
+            quarantine(circuit, cause);
+        }
+    }
+
+    private void quarantine(HandlerCircuit circuit, Throwable cause) {
+        MethodHandler handler = circuit.getHandler();
+        synchronized (lock) {
+            if (!handlers.contains(handler)) {
+                return;
+            }
+            List<MethodHandler> updated = new ArrayList<>(handlers);
+            updated.remove(handler);
+            publish(updated);
+            probing.remove(handler);
+
+            List<HandlerCircuit> remaining = new ArrayList<>(quarantined);
+            remaining.add(circuit);
+            updateQuarantined(remaining);
+        }
+        publishNotice(new HandlerQuarantineEvent(handler, CircuitState.OPEN, circuit.getFailures(), cause));
+    }
+
+    private void releaseQuarantined() {
+        long now = System.nanoTime();
+        if (now - nextProbe < 0) {
+            return;
+        }
+
+        List<HandlerCircuit> released = new ArrayList<>();
+        synchronized (lock) {
+            List<HandlerCircuit> remaining = new ArrayList<>();
+            for (HandlerCircuit circuit : quarantined) {
+                if (circuit.tryHalfOpen(now)) {
+                    released.add(circuit);
+                } else {
+                    remaining.add(circuit);
+                }
             }
-            errorHandler.onError(System.err, event, handler.getListener(),
-                    handler.getMethod(), cause);
+            if (released.isEmpty()) {
+                return;
+            }
+
+            List<MethodHandler> updated = new ArrayList<>(handlers);
+            Set<MethodHandler> present = new HashSet<>(updated);
+            for (HandlerCircuit circuit : released) {
+                probing.add(circuit.getHandler());
+                if (present.add(circuit.getHandler())) {
+                    updated.add(circuit.getHandler());
+                }
+            }
+            updated.sort(PRIORITY_ORDER);
+            publish(updated);
+            updateQuarantined(remaining);
+        }
+
+        for (HandlerCircuit circuit : released) {
+            publishNotice(new HandlerQuarantineEvent(circuit.getHandler(), CircuitState.HALF_OPEN,
+                    circuit.getFailures(), null));
+        }
+    }
+
+    private void closeCircuit(MethodHandler handler) {
+        HandlerCircuit circuit = circuits.get(handler);
+        if (circuit != null && circuit.close()) {
+            publishNotice(new HandlerQuarantineEvent(handler, CircuitState.CLOSED, 0, null));
+        }
+    }
+
+    private void publish(List<MethodHandler> updated) {
+        List<MethodHandler> snapshot = Collections.unmodifiableList(updated);
+        handlers = snapshot;
+        HandlerIndex previous = index;
+        HandlerIndex next = new HandlerIndex(snapshot);
+        if (frozen) {
+            for (Class<?> eventClass : previous.byEventClass.keySet()) {
+                next.forEvent(eventClass);
+            }
+        }
+        index = next;
+    }
+
+    private void updateQuarantined(List<HandlerCircuit> remaining) {
+        quarantined = remaining;
+        if (!remaining.isEmpty()) {
+            long earliest = remaining.get(0).getRetryAt();
+            for (HandlerCircuit circuit : remaining) {
+                if (circuit.getRetryAt() - earliest < 0) {
+                    earliest = circuit.getRetryAt();
+                }
+            }
+            nextProbe = earliest;
+        }
+        hasQuarantined = !remaining.isEmpty();
+    }
+
+    private void publishNotice(EventCore notice) {
+        if (eventLoop != null) {
+            eventLoop.submit(notice);
+        } else {
+            dispatch(notice, false);
         }
     }
 
     @Override
     public void close() {
+        if (eventLoop != null) {
+            eventLoop.close();
+        }
         if (ownsExecutor) {
             executor.shutdown();
         }
     }
 
-    private static List<MethodHandler> collectHandlers(Object listener) {
+    static List<MethodHandler> collectHandlers(Object listener) {
         List<MethodHandler> collected = new ArrayList<>();
         Class<?> type = listener.getClass();
         while (type != null && type != Object.class) {
@@ -190,7 +504,7 @@ public final class EventBus implements AutoCloseable {
         return collected;
     }
 
-    private static ThreadFactory namedThreadFactory(String prefix, boolean daemon) {
+    static ThreadFactory namedThreadFactory(String prefix, boolean daemon) {
         AtomicInteger index = new AtomicInteger(0);
         return runnable -> {
             Thread thread = new Thread(runnable, prefix + index.incrementAndGet());
@@ -199,12 +513,39 @@ public final class EventBus implements AutoCloseable {
         };
     }
 
+    private static final class HandlerIndex {
+        private final List<MethodHandler> handlers;
+        private final Map<Class<?>, List<MethodHandler>> byEventClass = new ConcurrentHashMap<>();
+
+        private HandlerIndex(List<MethodHandler> handlers) {
+            this.handlers = handlers;
+        }
+
+        private List<MethodHandler> forEvent(Class<?> eventClass) {
+            List<MethodHandler> selected = byEventClass.get(eventClass);
+            if (selected == null) {
+                selected = byEventClass.computeIfAbsent(eventClass, this::select);
+            }
+            return selected;
+        }
+
+        private List<MethodHandler> select(Class<?> eventClass) {
+            return handlers.stream()
+                    .filter(handler -> handler.accepts(eventClass))
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    }
+
     public static final class Builder {
         private ExecutorService executorService;
         private boolean stopOnCancelled;
         private EventErrorHandler errorHandler = EventErrorHandler.logging();
         private String threadNamePrefix = "event-bus-";
         private boolean daemonThreads = true;
+        private boolean eventLoop;
+        private CircuitBreaker circuitBreaker;
+        private ListenerIndex listenerIndex;
+        private boolean correlate;
 
         public Builder executor(ExecutorService executorService) {
             this.executorService = executorService;
@@ -231,12 +572,37 @@ public final class EventBus implements AutoCloseable {
             return this;
         }
 
+        public Builder eventLoop(boolean eventLoop) {
+            this.eventLoop = eventLoop;
+            return this;
+        }
+
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public Builder listenerIndex(ListenerIndex listenerIndex) {
+            this.listenerIndex = listenerIndex;
+            return this;
+        }
+
+        /**
+         * Makes events posted from inside a handler inherit the correlation id of the event being
+         * handled. Off by default, since it costs a thread-local update around every handler call.
+         */
+        public Builder correlate(boolean correlate) {
+            this.correlate = correlate;
+            return this;
+        }
+
         public EventBus build() {
+            ThreadFactory loopThreadFactory = eventLoop ? namedThreadFactory(threadNamePrefix + "loop-", daemonThreads) : null;
             if (executorService != null) {
-                return new EventBus(executorService, false, stopOnCancelled, errorHandler);
+                return new EventBus(executorService, false, stopOnCancelled, errorHandler, loopThreadFactory, circuitBreaker, listenerIndex, correlate);
             }
             ExecutorService executor = Executors.newCachedThreadPool(namedThreadFactory(threadNamePrefix, daemonThreads));
-            return new EventBus(executor, true, stopOnCancelled, errorHandler);
+            return new EventBus(executor, true, stopOnCancelled, errorHandler, loopThreadFactory, circuitBreaker, listenerIndex, correlate);
         }
     }
 }
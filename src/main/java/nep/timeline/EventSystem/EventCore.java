@@ -2,14 +2,19 @@ package nep.timeline.EventSystem;
 
 import nep.timeline.EventSystem.type.EventType;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
 public class EventCore
 {
     public static final String name = "EventSystem";
     public static final String developer = "Timeline";
     public static final String version = "3.6";
+    private static final AtomicLongFieldUpdater<EventCore> CORRELATION_ID =
+            AtomicLongFieldUpdater.newUpdater(EventCore.class, "correlationId");
     private final EventList event;
     private EventType type = EventType.NONE;
     private boolean isCancelled = false;
+    private volatile long correlationId;
 
     public EventCore(EventList event)
     {
@@ -46,4 +51,23 @@ public class EventCore
     {
         return this.type;
     }
+
+    public void setCorrelationId(long correlationId)
+    {
+        this.correlationId = correlationId;
+    }
+
+    public long getCorrelationId()
+    {
+        return this.correlationId;
+    }
+
+    long assignCorrelationId(long candidate)
+    {
+        if (CORRELATION_ID.compareAndSet(this, 0L, candidate))
+        {
+            return candidate;
+        }
+        return this.correlationId;
+    }
 }
@@ -6,7 +6,11 @@ import java.lang.reflect.Method;
 @FunctionalInterface
 public interface EventErrorHandler {
 
-
+    /**
+     * Called when a listener method throws. {@code event} and {@code method} are {@code null} when
+     * the error did not come from a listener method: an {@link EventSubscriber} reports a failed
+     * upstream publisher this way, with itself as {@code listener}.
+     */
     void onError(PrintStream beef, EventCore event, Object listener,
                  Method method,
                  Throwable error);
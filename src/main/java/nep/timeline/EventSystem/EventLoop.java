@@ -0,0 +1,106 @@
+package nep.timeline.EventSystem;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single consumer loop behind {@link EventBus.Builder#eventLoop(boolean)}. Any thread may enqueue;
+ * only the loop thread runs handlers, in enqueue order, draining the queue in batches.
+ */
+final class EventLoop implements Runnable {
+    private static final int BATCH_SIZE = 256;
+
+    private final EventBus bus;
+    private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    EventLoop(EventBus bus, ThreadFactory threadFactory) {
+        this.bus = bus;
+        this.thread = threadFactory.newThread(this);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    CompletableFuture<EventCore> submit(EventCore event) {
+        Task task = new Task(event);
+        if (!running) {
+            task.future.completeExceptionally(new RejectedExecutionException("Event loop is closed"));
+            return task.future;
+        }
+        queue.offer(task);
+        if (!running && queue.remove(task)) {
+            // close() raced with this submit and the loop may already be gone.
+            task.future.completeExceptionally(new RejectedExecutionException("Event loop is closed"));
+            return task.future;
+        }
+        LockSupport.unpark(thread);
+        return task.future;
+    }
+
+    @Override
+    public void run() {
+        while (running || !queue.isEmpty()) {
+            int drained = 0;
+            Task task;
+            while (drained < BATCH_SIZE && (task = queue.poll()) != null) {
+                task.run();
+                // A handler that re-asserts an interrupt must not leak it into the next handler
+                // or make park() return immediately and spin the idle loop.
+                Thread.interrupted();
+                drained++;
+            }
+            if (drained == 0 && running) {
+                LockSupport.park(this);
+            }
+        }
+        Task rejected;
+        while ((rejected = queue.poll()) != null) {
+            rejected.future.completeExceptionally(new RejectedExecutionException("Event loop is closed"));
+        }
+    }
+
+    /**
+     * Stops accepting events and waits for the ones already queued to be dispatched. When called
+     * from the loop thread itself it only stops the loop, since waiting there would never finish.
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (inLoop()) {
+            return;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class Task {
+        private final EventCore event;
+        private final CompletableFuture<EventCore> future = new CompletableFuture<>();
+
+        private Task(EventCore event) {
+            this.event = event;
+        }
+
+        private void run() {
+            try {
+                bus.dispatchInline(event);
+                future.complete(event);
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }
+    }
+}
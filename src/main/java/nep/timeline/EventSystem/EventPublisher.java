@@ -0,0 +1,123 @@
+package nep.timeline.EventSystem;
+
+import nep.timeline.EventSystem.type.EventPriority;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * A {@link Flow.Publisher} view of the events posted to an {@link EventBus}. Each subscriber gets a
+ * bounded buffer and only receives what it has requested; once a buffer is full the posting thread
+ * either blocks until the subscriber catches up or the event is dropped for that subscriber.
+ */
+public final class EventPublisher<T extends EventCore> implements Flow.Publisher<T>, AutoCloseable {
+    private final EventBus bus;
+    private final Class<T> eventType;
+    private final EventList channel;
+    private final boolean dropOnOverflow;
+    private final SubmissionPublisher<T> publisher;
+    private final Bridge bridge = new Bridge();
+
+    private EventPublisher(EventBus bus,
+                           Class<T> eventType,
+                           EventList channel,
+                           Executor executor,
+                           int bufferSize,
+                           boolean dropOnOverflow) {
+        this.bus = bus;
+        this.eventType = eventType;
+        this.channel = channel;
+        this.dropOnOverflow = dropOnOverflow;
+        this.publisher = new SubmissionPublisher<>(executor, bufferSize);
+        bus.register(bridge);
+    }
+
+    public static <T extends EventCore> Builder<T> builder(EventBus bus, Class<T> eventType) {
+        return new Builder<>(bus, eventType);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    @Override
+    public void close() {
+        bridge.detached = true;
+        try {
+            if (!bus.isFrozen()) {
+                bus.unregister(bridge);
+            }
+        } finally {
+            publisher.close();
+        }
+    }
+
+    private final class Bridge {
+        private volatile boolean detached;
+
+        @EventListener(event = EventList.ALL, priority = EventPriority.LOWEST, ignoreCancelled = true)
+        public void onEvent(EventCore event) {
+            if (detached || !publisher.hasSubscribers() || !eventType.isInstance(event)) {
+                return;
+            }
+            if (channel != EventList.ALL && channel != event.getEvent()) {
+                return;
+            }
+            T item = eventType.cast(event);
+            if (dropOnOverflow) {
+                publisher.offer(item, null);
+            } else {
+                publisher.submit(item);
+            }
+        }
+    }
+
+    public static final class Builder<T extends EventCore> {
+        private final EventBus bus;
+        private final Class<T> eventType;
+        private EventList channel = EventList.ALL;
+        private Executor executor;
+        private int bufferSize = Flow.defaultBufferSize();
+        private boolean dropOnOverflow;
+
+        private Builder(EventBus bus, Class<T> eventType) {
+            this.bus = Objects.requireNonNull(bus, "bus");
+            this.eventType = Objects.requireNonNull(eventType, "eventType");
+        }
+
+        public Builder<T> channel(EventList channel) {
+            this.channel = Objects.requireNonNull(channel, "channel");
+            return this;
+        }
+
+        public Builder<T> executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        public Builder<T> bufferSize(int bufferSize) {
+            if (bufferSize < 1) {
+                throw new IllegalArgumentException("bufferSize must be positive");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public Builder<T> dropOnOverflow(boolean dropOnOverflow) {
+            this.dropOnOverflow = dropOnOverflow;
+            return this;
+        }
+
+        public EventPublisher<T> build() {
+            Executor delivery = executor == null ? bus.getExecutor() : executor;
+            return new EventPublisher<>(bus, eventType, channel, delivery, bufferSize, dropOnOverflow);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package nep.timeline.EventSystem;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Subscriber} that posts every received item into an {@link EventBus}. It requests one
+ * item at a time and asks for the next only after the previous post has completed, so a slow bus
+ * slows the upstream publisher down instead of buffering without bound.
+ */
+public final class EventSubscriber<T extends EventCore> implements Flow.Subscriber<T> {
+    private final EventBus bus;
+    private Flow.Subscription subscription;
+
+    public EventSubscriber(EventBus bus) {
+        this.bus = Objects.requireNonNull(bus, "bus");
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(T item) {
+        try {
+            bus.post(item);
+        } finally {
+            subscription.request(1);
+        }
+    }
+
+    /**
+     * Reports the upstream failure to the bus {@link EventErrorHandler} with a {@code null} event
+     * and method, since no event or listener method is involved.
+     */
+    @Override
+    public void onError(Throwable throwable) {
+        bus.getErrorHandler().onError(System.err, null, this, null, throwable);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    public void cancel() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
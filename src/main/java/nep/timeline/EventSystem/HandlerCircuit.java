@@ -0,0 +1,88 @@
+package nep.timeline.EventSystem;
+
+import nep.timeline.EventSystem.type.CircuitState;
+
+/**
+ * Failure bookkeeping for one {@link MethodHandler}. Only touched on the failure path and when a
+ * quarantined handler changes state, so the lock never sits on the successful dispatch path.
+ */
+final class HandlerCircuit {
+    private final MethodHandler handler;
+    private CircuitState state = CircuitState.CLOSED;
+    private long windowStart;
+    private int failures;
+    private boolean reported;
+    private long lastReport;
+    private long retryAt;
+
+    HandlerCircuit(MethodHandler handler) {
+        this.handler = handler;
+    }
+
+    MethodHandler getHandler() {
+        return handler;
+    }
+
+    synchronized CircuitState getState() {
+        return state;
+    }
+
+    synchronized int getFailures() {
+        return failures;
+    }
+
+    synchronized long getRetryAt() {
+        return retryAt;
+    }
+
+    synchronized boolean shouldReport(long now, CircuitBreaker policy) {
+        if (reported && now - lastReport < policy.getReportInterval().toNanos()) {
+            return false;
+        }
+        reported = true;
+        lastReport = now;
+        return true;
+    }
+
+    synchronized boolean recordFailure(long now, CircuitBreaker policy) {
+        if (state == CircuitState.OPEN) {
+            return false;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            open(now, policy);
+            return true;
+        }
+        if (failures == 0 || now - windowStart > policy.getWindow().toNanos()) {
+            windowStart = now;
+            failures = 0;
+        }
+        failures++;
+        if (failures >= policy.getFailureThreshold()) {
+            open(now, policy);
+            return true;
+        }
+        return false;
+    }
+
+    synchronized boolean tryHalfOpen(long now) {
+        if (state != CircuitState.OPEN || now - retryAt < 0) {
+            return false;
+        }
+        state = CircuitState.HALF_OPEN;
+        return true;
+    }
+
+    synchronized boolean close() {
+        if (state != CircuitState.HALF_OPEN) {
+            return false;
+        }
+        state = CircuitState.CLOSED;
+        failures = 0;
+        return true;
+    }
+
+    private void open(long now, CircuitBreaker policy) {
+        state = CircuitState.OPEN;
+        retryAt = now + policy.getCoolDown().toNanos();
+    }
+}
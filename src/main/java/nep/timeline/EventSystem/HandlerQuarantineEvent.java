@@ -0,0 +1,45 @@
+package nep.timeline.EventSystem;
+
+import nep.timeline.EventSystem.type.CircuitState;
+
+/**
+ * Posted on the bus whenever a handler's circuit changes state: {@code OPEN} when it is
+ * quarantined, {@code HALF_OPEN} when it is put back for a trial and {@code CLOSED} once the trial
+ * succeeds.
+ */
+public class HandlerQuarantineEvent extends EventCore
+{
+    private final MethodHandler handler;
+    private final CircuitState state;
+    private final int failures;
+    private final Throwable lastError;
+
+    public HandlerQuarantineEvent(MethodHandler handler, CircuitState state, int failures, Throwable lastError)
+    {
+        super(EventList.NONE);
+        this.handler = handler;
+        this.state = state;
+        this.failures = failures;
+        this.lastError = lastError;
+    }
+
+    public MethodHandler getHandler()
+    {
+        return this.handler;
+    }
+
+    public CircuitState getState()
+    {
+        return this.state;
+    }
+
+    public int getFailures()
+    {
+        return this.failures;
+    }
+
+    public Throwable getLastError()
+    {
+        return this.lastError;
+    }
+}
@@ -0,0 +1,326 @@
+package nep.timeline.EventSystem;
+
+import nep.timeline.EventSystem.type.EventPriority;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-resolved listener metadata. Written once (for example during the build) with
+ * {@link #write(OutputStream, Class[])} and loaded at startup with {@link #load(ClassLoader)}, so
+ * {@link EventBus#register(Object...)} can look methods up by signature instead of scanning every
+ * declared method of every listener instance. Classes missing from the index are scanned as usual.
+ *
+ * <p>By default each indexed class is verified once, with a single pass over the declared methods
+ * of its hierarchy: if a method was added, removed or re-annotated since the index was written,
+ * the class is scanned instead, and that outcome is cached. A {@link #trusted()} index skips the
+ * verification and resolves each indexed method directly by name and parameter type, so startup
+ * does no annotation scanning at all; use it only when the index is generated by the same build
+ * that produces the listener classes.</p>
+ *
+ * <p>Each line is {@code listenerClass declaringClass method parameterType event priority async
+ * ignoreCancelled}, tab separated; a line holding only the listener class marks a class without
+ * handlers.</p>
+ */
+public final class ListenerIndex {
+    public static final String DEFAULT_RESOURCE = "META-INF/eventsystem/listeners.idx";
+
+    private static final String HEADER = "# EventSystem listener index v1";
+    private static final String NO_PARAMETER = "-";
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+            .comparing((Entry entry) -> entry.declaringClass)
+            .thenComparing(entry -> entry.methodName)
+            .thenComparing(entry -> entry.parameterType == null ? NO_PARAMETER : entry.parameterType);
+
+    private final Map<String, List<Entry>> entries;
+    private final boolean trusted;
+    private final Map<Class<?>, List<Resolved>> resolved = new ConcurrentHashMap<>();
+    private final Set<Class<?>> stale = ConcurrentHashMap.newKeySet();
+
+    private ListenerIndex(Map<String, List<Entry>> entries, boolean trusted) {
+        this.entries = entries;
+        this.trusted = trusted;
+    }
+
+    public ListenerIndex trusted() {
+        return new ListenerIndex(entries, true);
+    }
+
+    public boolean isTrusted() {
+        return trusted;
+    }
+
+    public static ListenerIndex of(Class<?>... listenerTypes) {
+        Map<String, List<Entry>> entries = new TreeMap<>();
+        for (Class<?> listenerType : listenerTypes) {
+            List<Entry> scanned = scan(listenerType);
+            scanned.sort(ENTRY_ORDER);
+            entries.put(listenerType.getName(), scanned);
+        }
+        return new ListenerIndex(entries, false);
+    }
+
+    public static ListenerIndex load(ClassLoader loader) {
+        return load(loader, DEFAULT_RESOURCE);
+    }
+
+    public static ListenerIndex load(ClassLoader loader, String resource) {
+        Objects.requireNonNull(loader, "loader");
+        Objects.requireNonNull(resource, "resource");
+        try (InputStream in = loader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new EventException("Listener index not found: " + resource);
+            }
+            return read(in);
+        } catch (IOException exception) {
+            throw new EventException("Failed to read listener index: " + resource, exception);
+        }
+    }
+
+    public static ListenerIndex read(InputStream in) throws IOException {
+        Map<String, List<Entry>> entries = new TreeMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            List<Entry> listenerEntries = entries.computeIfAbsent(fields[0], name -> new ArrayList<>());
+            if (fields.length == 1) {
+                continue;
+            }
+            if (fields.length != 8) {
+                throw new EventException("Malformed listener index line: " + line);
+            }
+            try {
+                listenerEntries.add(new Entry(
+                        fields[1],
+                        fields[2],
+                        NO_PARAMETER.equals(fields[3]) ? null : fields[3],
+                        EventList.valueOf(fields[4]),
+                        EventPriority.valueOf(fields[5]),
+                        Boolean.parseBoolean(fields[6]),
+                        Boolean.parseBoolean(fields[7])
+                ));
+            } catch (IllegalArgumentException exception) {
+                throw new EventException("Malformed listener index line: " + line, exception);
+            }
+        }
+        return new ListenerIndex(entries, false);
+    }
+
+    public static void write(OutputStream out, Class<?>... listenerTypes) throws IOException {
+        of(listenerTypes).write(out);
+    }
+
+    public void write(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.write('\n');
+        for (Map.Entry<String, List<Entry>> listener : entries.entrySet()) {
+            if (listener.getValue().isEmpty()) {
+                writer.write(listener.getKey());
+                writer.write('\n');
+                continue;
+            }
+            for (Entry entry : listener.getValue()) {
+                writer.write(String.join("\t",
+                        listener.getKey(),
+                        entry.declaringClass,
+                        entry.methodName,
+                        entry.parameterType == null ? NO_PARAMETER : entry.parameterType,
+                        entry.event.name(),
+                        entry.priority.name(),
+                        Boolean.toString(entry.async),
+                        Boolean.toString(entry.ignoreCancelled)));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+    public boolean contains(Class<?> listenerType) {
+        return entries.containsKey(listenerType.getName());
+    }
+
+    List<MethodHandler> resolve(Object listener) {
+        Class<?> type = listener.getClass();
+        if (!contains(type) || stale.contains(type)) {
+            return null;
+        }
+        List<Resolved> methods = resolved.get(type);
+        if (methods == null) {
+            methods = trusted ? lookup(type) : verify(type);
+            if (methods == null) {
+                stale.add(type);
+                return null;
+            }
+            resolved.putIfAbsent(type, methods);
+        }
+        List<MethodHandler> handlers = new ArrayList<>(methods.size());
+        for (Resolved method : methods) {
+            handlers.add(MethodHandler.create(listener, method.method, method.entry.event,
+                    method.entry.priority, method.entry.async, method.entry.ignoreCancelled));
+        }
+        return handlers;
+    }
+
+    private List<Resolved> verify(Class<?> listenerType) {
+        Map<String, Method> annotated = new HashMap<>();
+        Class<?> type = listenerType;
+        while (type != null && type != Object.class) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(EventListener.class)) {
+                    String parameter = method.getParameterCount() == 0
+                            ? NO_PARAMETER
+                            : method.getParameterTypes()[0].getName();
+                    annotated.put(signature(type.getName(), method.getName(), parameter), method);
+                }
+            }
+            type = type.getSuperclass();
+        }
+
+        List<Entry> indexed = entries.get(listenerType.getName());
+        if (annotated.size() != indexed.size()) {
+            return null;
+        }
+        List<Resolved> methods = new ArrayList<>(indexed.size());
+        for (Entry entry : indexed) {
+            Method method = annotated.get(entry.signature());
+            if (method == null || !entry.matches(method.getDeclaredAnnotation(EventListener.class))) {
+                return null;
+            }
+            methods.add(new Resolved(entry, method));
+        }
+        return methods;
+    }
+
+    private List<Resolved> lookup(Class<?> listenerType) {
+        List<Entry> indexed = entries.get(listenerType.getName());
+        List<Resolved> methods = new ArrayList<>(indexed.size());
+        for (Entry entry : indexed) {
+            Method method = entry.lookup(listenerType);
+            if (method == null) {
+                return null;
+            }
+            methods.add(new Resolved(entry, method));
+        }
+        return methods;
+    }
+
+    private static String signature(String declaringClass, String methodName, String parameterType) {
+        return declaringClass + '#' + methodName + '(' + parameterType + ')';
+    }
+
+    private static List<Entry> scan(Class<?> listenerType) {
+        List<Entry> scanned = new ArrayList<>();
+        Class<?> type = listenerType;
+        while (type != null && type != Object.class) {
+            for (Method method : type.getDeclaredMethods()) {
+                EventListener annotation = method.getDeclaredAnnotation(EventListener.class);
+                if (annotation == null) {
+                    continue;
+                }
+                if (method.getParameterCount() > 1) {
+                    throw new EventException("Listener methods must have 0 or 1 parameter. method name:" + method.getName());
+                }
+                scanned.add(new Entry(
+                        type.getName(),
+                        method.getName(),
+                        method.getParameterCount() == 0 ? null : method.getParameterTypes()[0].getName(),
+                        annotation.event(),
+                        annotation.priority(),
+                        annotation.async(),
+                        annotation.ignoreCancelled()
+                ));
+            }
+            type = type.getSuperclass();
+        }
+        return scanned;
+    }
+
+    private static final class Entry {
+        private final String declaringClass;
+        private final String methodName;
+        private final String parameterType;
+        private final EventList event;
+        private final EventPriority priority;
+        private final boolean async;
+        private final boolean ignoreCancelled;
+
+        private Entry(String declaringClass,
+                      String methodName,
+                      String parameterType,
+                      EventList event,
+                      EventPriority priority,
+                      boolean async,
+                      boolean ignoreCancelled) {
+            this.declaringClass = declaringClass;
+            this.methodName = methodName;
+            this.parameterType = parameterType;
+            this.event = event;
+            this.priority = priority;
+            this.async = async;
+            this.ignoreCancelled = ignoreCancelled;
+        }
+
+        private boolean matches(EventListener annotation) {
+            return annotation != null
+                    && annotation.event() == event
+                    && annotation.priority() == priority
+                    && annotation.async() == async
+                    && annotation.ignoreCancelled() == ignoreCancelled;
+        }
+
+        private String signature() {
+            return ListenerIndex.signature(declaringClass, methodName,
+                    parameterType == null ? NO_PARAMETER : parameterType);
+        }
+
+        private Method lookup(Class<?> listenerType) {
+            Class<?> type = listenerType;
+            while (type != null && !type.getName().equals(declaringClass)) {
+                type = type.getSuperclass();
+            }
+            if (type == null) {
+                return null;
+            }
+            try {
+                if (parameterType == null) {
+                    return type.getDeclaredMethod(methodName);
+                }
+                Class<?> parameter = Class.forName(parameterType, false, type.getClassLoader());
+                return type.getDeclaredMethod(methodName, parameter);
+            } catch (ReflectiveOperationException exception) {
+                return null;
+            }
+        }
+    }
+
+    private static final class Resolved {
+        private final Entry entry;
+        private final Method method;
+
+        private Resolved(Entry entry, Method method) {
+            this.entry = entry;
+            this.method = method;
+        }
+    }
+}
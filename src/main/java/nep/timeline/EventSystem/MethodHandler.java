@@ -2,6 +2,9 @@ package nep.timeline.EventSystem;
 
 import nep.timeline.EventSystem.type.EventPriority;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Objects;
 
@@ -13,6 +16,7 @@ public final class MethodHandler {
     private final boolean async;
     private final boolean ignoreCancelled;
     private final Class<? extends EventCore> parameterType;
+    private MethodHandle invoker;
 
     private MethodHandler(Method method,
                           Object listener,
@@ -31,9 +35,19 @@ public final class MethodHandler {
     }
 
     public static MethodHandler create(Object listener, Method method, EventListener annotation) {
+        Objects.requireNonNull(annotation, "annotation");
+        return create(listener, method, annotation.event(), annotation.priority(),
+                annotation.async(), annotation.ignoreCancelled());
+    }
+
+    static MethodHandler create(Object listener,
+                                Method method,
+                                EventList event,
+                                EventPriority priority,
+                                boolean async,
+                                boolean ignoreCancelled) {
         Objects.requireNonNull(listener, "listener");
         Objects.requireNonNull(method, "method");
-        Objects.requireNonNull(annotation, "annotation");
 
         int parameterCount = method.getParameterCount();
         if (parameterCount > 1) {
@@ -47,21 +61,48 @@ public final class MethodHandler {
                 throw new EventException("Listener parameter must extend EventCore. method name:" + method.getName());
             }
             parameterType = raw.asSubclass(EventCore.class);
-        } else if (annotation.event() == EventList.NONE) {
+        } else if (event == EventList.NONE) {
             throw new EventException("Listener methods without parameters must declare an event. method name:" + method.getName());
         }
 
         return new MethodHandler(
                 method,
                 listener,
-                annotation.event(),
-                annotation.priority(),
-                annotation.async(),
-                annotation.ignoreCancelled(),
+                event,
+                priority,
+                async,
+                ignoreCancelled,
                 parameterType
         );
     }
 
+    void prepare() {
+        if (invoker != null) {
+            return;
+        }
+        if (!method.canAccess(listener)) {
+            method.setAccessible(true);
+        }
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method).bindTo(listener);
+            if (parameterType == null) {
+                handle = MethodHandles.dropArguments(handle, 0, EventCore.class);
+            }
+            invoker = handle.asType(MethodType.methodType(void.class, EventCore.class));
+        } catch (IllegalAccessException exception) {
+            throw new EventException("Cannot access listener method. method name:" + method.getName(), exception);
+        }
+    }
+
+    void invoke(EventCore eventInstance) throws Throwable {
+        MethodHandle current = invoker;
+        if (current == null) {
+            prepare();
+            current = invoker;
+        }
+        current.invokeExact(eventInstance);
+    }
+
     public Method getMethod() {
         return method;
     }
@@ -99,11 +140,11 @@ public final class MethodHandler {
             return false;
         }
 
-        if (parameterType == null) {
-            return true;
-        }
+        return accepts(eventInstance.getClass());
+    }
 
-        return parameterType.isAssignableFrom(eventInstance.getClass());
+    boolean accepts(Class<?> eventClass) {
+        return parameterType == null || parameterType.isAssignableFrom(eventClass);
     }
 
     @Override
@@ -0,0 +1,238 @@
+package nep.timeline.EventSystem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Routes every event to one of N shards by key. Each shard owns a single worker thread and its
+ * own handler snapshot, so events with the same key are handled in post order on the same thread.
+ *
+ * <p>A synchronous {@link #post(EventCore)} made from a shard thread is not run nested or waited
+ * for: like {@link #postAsync(EventCore)} it is queued behind the events already queued for its key,
+ * so per-key order holds for handlers that mix both calls, and shards never wait on each other.
+ * Use the future from {@code postAsync} when a handler needs to know when a post completed.</p>
+ *
+ * <p>With a {@link CircuitBreaker}, every shard applies the policy on its own: a handler's failures
+ * are counted per shard and it is quarantined only on the shards where it crossed the threshold.
+ * Each shard posts its own {@link HandlerQuarantineEvent}s, which are dispatched on that shard.
+ * {@link #getQuarantinedHandlers(int)} shows one shard's view.</p>
+ */
+public final class ShardedEventBus implements AutoCloseable {
+    private final Shard[] shards;
+    private final Function<? super EventCore, ?> keyExtractor;
+    private final boolean correlate;
+
+    private ShardedEventBus(int shardCount,
+                            Function<? super EventCore, ?> keyExtractor,
+                            boolean stopOnCancelled,
+                            EventErrorHandler errorHandler,
+                            CircuitBreaker circuitBreaker,
+                            boolean correlate,
+                            String threadNamePrefix,
+                            boolean daemonThreads) {
+        this.keyExtractor = keyExtractor;
+        this.correlate = correlate;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(threadNamePrefix + i, daemonThreads, stopOnCancelled, errorHandler, circuitBreaker, correlate);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public void register(Object... listeners) {
+        if (listeners == null || listeners.length == 0) {
+            return;
+        }
+
+        List<MethodHandler> additions = new ArrayList<>();
+        for (Object listener : listeners) {
+            if (listener == null) {
+                continue;
+            }
+            additions.addAll(EventBus.collectHandlers(listener));
+        }
+
+        for (Shard shard : shards) {
+            shard.bus.registerHandlers(additions);
+        }
+    }
+
+    public void unregister(Object... listeners) {
+        for (Shard shard : shards) {
+            shard.bus.unregister(listeners);
+        }
+    }
+
+    public List<MethodHandler> getQuarantinedHandlers(int shard) {
+        return shards[shard].bus.getQuarantinedHandlers();
+    }
+
+    public List<MethodHandler> getQuarantinedHandlers() {
+        Set<MethodHandler> quarantined = new LinkedHashSet<>();
+        for (Shard shard : shards) {
+            quarantined.addAll(shard.bus.getQuarantinedHandlers());
+        }
+        return List.copyOf(quarantined);
+    }
+
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.bus.clear();
+        }
+    }
+
+    public EventCore post(EventCore event) {
+        Shard shard = shardFor(event);
+        if (correlate) {
+            DispatchTracing.inherit(event);
+        }
+        CompletableFuture<EventCore> future = shard.submit(event);
+        if (isShardThread()) {
+            return event;
+        }
+        return future.join();
+    }
+
+    public CompletableFuture<EventCore> postAsync(EventCore event) {
+        Shard shard = shardFor(event);
+        if (correlate) {
+            DispatchTracing.inherit(event);
+        }
+        return shard.submit(event);
+    }
+
+    public int shardIndex(EventCore event) {
+        Objects.requireNonNull(event, "event");
+        int hash = Objects.hashCode(keyExtractor.apply(event));
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    private boolean isShardThread() {
+        Thread current = Thread.currentThread();
+        for (Shard shard : shards) {
+            if (shard.thread == current) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Shard shardFor(EventCore event) {
+        return shards[shardIndex(event)];
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+    }
+
+    private static final class Shard {
+        private final ExecutorService executor;
+        private final EventBus bus;
+        private volatile Thread thread;
+
+        private Shard(String threadName,
+                      boolean daemon,
+                      boolean stopOnCancelled,
+                      EventErrorHandler errorHandler,
+                      CircuitBreaker circuitBreaker,
+                      boolean correlate) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread worker = new Thread(runnable, threadName);
+                worker.setDaemon(daemon);
+                this.thread = worker;
+                return worker;
+            });
+            this.bus = EventBus.builder()
+                    .executor(executor)
+                    .stopOnCancelled(stopOnCancelled)
+                    .errorHandler(errorHandler)
+                    .circuitBreaker(circuitBreaker)
+                    .correlate(correlate)
+                    .build();
+        }
+
+        private CompletableFuture<EventCore> submit(EventCore event) {
+            return CompletableFuture.supplyAsync(() -> {
+                bus.dispatchInline(event);
+                return event;
+            }, executor);
+        }
+    }
+
+    public static final class Builder {
+        private int shards = Runtime.getRuntime().availableProcessors();
+        private Function<? super EventCore, ?> keyExtractor;
+        private boolean stopOnCancelled;
+        private EventErrorHandler errorHandler = EventErrorHandler.logging();
+        private CircuitBreaker circuitBreaker;
+        private boolean correlate;
+        private String threadNamePrefix = "event-shard-";
+        private boolean daemonThreads = true;
+
+        public Builder shards(int shards) {
+            if (shards < 1) {
+                throw new IllegalArgumentException("shards must be positive");
+            }
+            this.shards = shards;
+            return this;
+        }
+
+        public Builder keyExtractor(Function<? super EventCore, ?> keyExtractor) {
+            this.keyExtractor = Objects.requireNonNull(keyExtractor, "keyExtractor");
+            return this;
+        }
+
+        public Builder stopOnCancelled(boolean stopOnCancelled) {
+            this.stopOnCancelled = stopOnCancelled;
+            return this;
+        }
+
+        public Builder errorHandler(EventErrorHandler errorHandler) {
+            this.errorHandler = Objects.requireNonNull(errorHandler, "errorHandler");
+            return this;
+        }
+
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        public Builder correlate(boolean correlate) {
+            this.correlate = correlate;
+            return this;
+        }
+
+        public Builder threadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = Objects.requireNonNull(threadNamePrefix, "threadNamePrefix");
+            return this;
+        }
+
+        public Builder daemonThreads(boolean daemonThreads) {
+            this.daemonThreads = daemonThreads;
+            return this;
+        }
+
+        public ShardedEventBus build() {
+            Objects.requireNonNull(keyExtractor, "keyExtractor");
+            return new ShardedEventBus(shards, keyExtractor, stopOnCancelled, errorHandler, circuitBreaker,
+                    correlate, threadNamePrefix, daemonThreads);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package nep.timeline.EventSystem.type;
+
+public enum CircuitState {
+    CLOSED("Closed"),
+    OPEN("Open"),
+    HALF_OPEN("HalfOpen");
+
+    private final String name;
+
+    CircuitState(String name)
+    {
+        this.name = name;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.name;
+    }
+}
@@ -1,14 +1,36 @@
 package nep.timeline.EventSystem.test;
 
 import nep.timeline.EventSystem.*;
+import nep.timeline.EventSystem.type.CircuitState;
 import nep.timeline.EventSystem.type.EventPriority;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -27,6 +49,35 @@ class EventBusTest {
         }
     }
 
+    static class KeyedEvent extends EventCore {
+        private final int key;
+        private final int sequence;
+
+        KeyedEvent(int key, int sequence) {
+            super(EventList.NONE);
+            this.key = key;
+            this.sequence = sequence;
+        }
+    }
+
+    public static class IndexedListener {
+        private final List<String> calls;
+
+        IndexedListener(List<String> calls) {
+            this.calls = calls;
+        }
+
+        @EventListener(priority = EventPriority.HIGH)
+        public void onSimple(SimpleEvent event) {
+            calls.add("simple");
+        }
+
+        @EventListener(event = EventList.SHUT_DOWN)
+        public void onShutdown() {
+            calls.add("shutdown");
+        }
+    }
+
     @Test
     void dispatchByEventClass() {
         EventBus bus = EventBus.builder().build();
@@ -147,4 +198,599 @@ class EventBusTest {
         assertThrows(EventException.class, () -> bus.register(listener));
         bus.close();
     }
+
+    @Test
+    void shardedBusPreservesPerKeyOrder() {
+        ShardedEventBus bus = ShardedEventBus.builder()
+                .shards(4)
+                .keyExtractor(event -> ((KeyedEvent) event).key)
+                .build();
+        Map<Integer, List<Integer>> sequences = new ConcurrentHashMap<>();
+        Map<Integer, Set<String>> threads = new ConcurrentHashMap<>();
+
+        Object listener = new Object() {
+            @EventListener(async = true)
+            public void onKeyed(KeyedEvent event) {
+                sequences.computeIfAbsent(event.key, key -> new ArrayList<>()).add(event.sequence);
+                threads.computeIfAbsent(event.key, key -> ConcurrentHashMap.newKeySet())
+                        .add(Thread.currentThread().getName());
+            }
+        };
+
+        bus.register(listener);
+        List<CompletableFuture<EventCore>> futures = new ArrayList<>();
+        for (int sequence = 0; sequence < 100; sequence++) {
+            for (int key = 0; key < 8; key++) {
+                futures.add(bus.postAsync(new KeyedEvent(key, sequence)));
+            }
+        }
+        futures.forEach(CompletableFuture::join);
+
+        for (int key = 0; key < 8; key++) {
+            List<Integer> expected = new ArrayList<>();
+            for (int sequence = 0; sequence < 100; sequence++) {
+                expected.add(sequence);
+            }
+            assertEquals(expected, sequences.get(key));
+            assertEquals(1, threads.get(key).size());
+        }
+        bus.close();
+    }
+
+    @Test
+    void shardedCrossShardPostDoesNotDeadlock() throws Exception {
+        ShardedEventBus bus = ShardedEventBus.builder()
+                .shards(2)
+                .keyExtractor(event -> ((KeyedEvent) event).key)
+                .build();
+        assertTrue(bus.shardIndex(new KeyedEvent(0, 0)) != bus.shardIndex(new KeyedEvent(1, 0)));
+        CountDownLatch latch = new CountDownLatch(4);
+
+        Object listener = new Object() {
+            @EventListener
+            public void onKeyed(KeyedEvent event) {
+                if (event.sequence == 0) {
+                    bus.post(new KeyedEvent(1 - event.key, 1));
+                }
+                latch.countDown();
+            }
+        };
+
+        bus.register(listener);
+        bus.postAsync(new KeyedEvent(0, 0));
+        bus.postAsync(new KeyedEvent(1, 0));
+
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        bus.close();
+    }
+
+    @Test
+    void shardedPostsFromHandlerKeepPerKeyOrder() {
+        ShardedEventBus bus = ShardedEventBus.builder()
+                .shards(2)
+                .keyExtractor(event -> ((KeyedEvent) event).key)
+                .build();
+        List<Integer> sequences = new CopyOnWriteArrayList<>();
+
+        Object listener = new Object() {
+            @EventListener
+            public void onKeyed(KeyedEvent event) {
+                sequences.add(event.sequence);
+                if (event.sequence == 0) {
+                    bus.postAsync(new KeyedEvent(event.key, 1));
+                    bus.post(new KeyedEvent(event.key, 2));
+                }
+            }
+        };
+
+        bus.register(listener);
+        bus.post(new KeyedEvent(0, 0));
+        bus.post(new KeyedEvent(0, 3));
+
+        assertEquals(List.of(0, 1, 2, 3), sequences);
+        bus.close();
+    }
+
+    @Test
+    void publisherHonorsDemand() throws Exception {
+        EventBus bus = EventBus.builder().build();
+        EventPublisher<SimpleEvent> publisher = bus.publisher(SimpleEvent.class);
+        List<SimpleEvent> received = new CopyOnWriteArrayList<>();
+        CountDownLatch subscribed = new CountDownLatch(1);
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription value) {
+                subscription.set(value);
+                subscribed.countDown();
+            }
+
+            @Override
+            public void onNext(SimpleEvent item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertTrue(subscribed.await(1, TimeUnit.SECONDS));
+
+        subscription.get().request(2);
+        for (int i = 0; i < 5; i++) {
+            bus.post(new SimpleEvent());
+        }
+        bus.post(new ShutdownEvent());
+        awaitSize(received, 2);
+        Thread.sleep(50);
+        assertEquals(2, received.size());
+
+        subscription.get().request(10);
+        awaitSize(received, 5);
+        assertEquals(5, received.size());
+
+        publisher.close();
+        bus.close();
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void subscriberPostsIntoBus() throws Exception {
+        EventBus bus = EventBus.builder().build();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                latch.countDown();
+            }
+        };
+
+        bus.register(listener);
+        try (SubmissionPublisher<SimpleEvent> upstream = new SubmissionPublisher<>()) {
+            upstream.subscribe(bus.subscriber());
+            for (int i = 0; i < 3; i++) {
+                upstream.submit(new SimpleEvent());
+            }
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+        }
+        bus.close();
+    }
+
+    @Test
+    void eventLoopDefersReentrantPosts() {
+        EventBus bus = EventBus.builder().eventLoop(true).build();
+        List<String> calls = new ArrayList<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                threads.add(Thread.currentThread().getName());
+                calls.add("simple-start");
+                bus.post(new ShutdownEvent());
+                calls.add("simple-end");
+            }
+
+            @EventListener(event = EventList.SHUT_DOWN, async = true)
+            public void onShutdown() {
+                threads.add(Thread.currentThread().getName());
+                calls.add("shutdown");
+            }
+        };
+
+        bus.register(listener);
+        bus.post(new SimpleEvent());
+        bus.postAsync(new SimpleEvent()).join();
+        bus.post(new KeyedEvent(0, 0));
+
+        assertEquals(List.of("simple-start", "simple-end", "shutdown",
+                "simple-start", "simple-end", "shutdown"), calls);
+        assertEquals(1, threads.size());
+        bus.close();
+    }
+
+    @Test
+    void eventLoopCloseDrainsQueueAndRejectsLatePosts() {
+        EventBus bus = EventBus.builder().eventLoop(true).build();
+        AtomicInteger counter = new AtomicInteger(0);
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                counter.incrementAndGet();
+            }
+        };
+
+        bus.register(listener);
+        List<CompletableFuture<EventCore>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(bus.postAsync(new SimpleEvent()));
+        }
+        bus.close();
+
+        assertTrue(futures.stream().allMatch(future -> future.isDone() && !future.isCompletedExceptionally()));
+        assertEquals(100, counter.get());
+        assertTrue(bus.postAsync(new SimpleEvent()).isCompletedExceptionally());
+    }
+
+    @Test
+    void eventLoopClearsInterruptBetweenHandlers() throws Exception {
+        EventBus bus = EventBus.builder().eventLoop(true).build();
+        AtomicReference<Thread> loopThread = new AtomicReference<>();
+        List<Boolean> interruptedOnEntry = new CopyOnWriteArrayList<>();
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                loopThread.set(Thread.currentThread());
+                interruptedOnEntry.add(Thread.currentThread().isInterrupted());
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        bus.register(listener);
+        bus.post(new SimpleEvent());
+        bus.post(new SimpleEvent());
+        assertEquals(List.of(false, false), interruptedOnEntry);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long id = loopThread.get().getId();
+        long before = threads.getThreadCpuTime(id);
+        Thread.sleep(200);
+        long spent = threads.getThreadCpuTime(id) - before;
+        assertTrue(spent < TimeUnit.MILLISECONDS.toNanos(50), "idle loop used " + spent + " ns of CPU");
+        bus.close();
+    }
+
+    @Test
+    void circuitBreakerQuarantinesFailingHandler() throws Exception {
+        AtomicInteger reports = new AtomicInteger(0);
+        EventBus bus = EventBus.builder()
+                .errorHandler((beef, event, listener, method, error) -> reports.incrementAndGet())
+                .circuitBreaker(CircuitBreaker.builder()
+                        .failureThreshold(3)
+                        .coolDown(Duration.ofMillis(50))
+                        .reportInterval(Duration.ofMinutes(1))
+                        .build())
+                .build();
+        AtomicInteger attempts = new AtomicInteger(0);
+        AtomicBoolean failing = new AtomicBoolean(true);
+        List<CircuitState> states = new CopyOnWriteArrayList<>();
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                attempts.incrementAndGet();
+                if (failing.get()) {
+                    throw new IllegalStateException("boom");
+                }
+            }
+
+            @EventListener
+            public void onQuarantine(HandlerQuarantineEvent event) {
+                states.add(event.getState());
+            }
+        };
+
+        bus.register(listener);
+        for (int i = 0; i < 10; i++) {
+            bus.post(new SimpleEvent());
+        }
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, reports.get());
+        assertEquals(1, bus.getQuarantinedHandlers().size());
+        assertEquals(List.of(CircuitState.OPEN), states);
+
+        failing.set(false);
+        Thread.sleep(100);
+        bus.post(new SimpleEvent());
+        bus.post(new SimpleEvent());
+
+        assertEquals(5, attempts.get());
+        assertTrue(bus.getQuarantinedHandlers().isEmpty());
+        assertEquals(List.of(CircuitState.OPEN, CircuitState.HALF_OPEN, CircuitState.CLOSED), states);
+        bus.close();
+    }
+
+    @Test
+    void reregisteringQuarantinedListenerResetsCircuit() throws Exception {
+        EventBus bus = EventBus.builder()
+                .errorHandler((beef, event, listener, method, error) -> { })
+                .circuitBreaker(CircuitBreaker.builder()
+                        .failureThreshold(1)
+                        .coolDown(Duration.ofMillis(50))
+                        .build())
+                .build();
+        AtomicInteger attempts = new AtomicInteger(0);
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("boom");
+                }
+            }
+        };
+
+        bus.register(listener);
+        bus.post(new SimpleEvent());
+        assertEquals(1, bus.getQuarantinedHandlers().size());
+
+        bus.register(listener);
+        assertTrue(bus.getQuarantinedHandlers().isEmpty());
+        Thread.sleep(100);
+        bus.post(new SimpleEvent());
+
+        assertEquals(2, attempts.get());
+        bus.close();
+    }
+
+    @Test
+    void shardedCircuitBreakerQuarantinesPerShard() {
+        ShardedEventBus bus = ShardedEventBus.builder()
+                .shards(2)
+                .keyExtractor(event -> ((KeyedEvent) event).key)
+                .errorHandler((beef, event, listener, method, error) -> { })
+                .circuitBreaker(CircuitBreaker.builder().failureThreshold(1).build())
+                .build();
+
+        Object listener = new Object() {
+            @EventListener
+            public void onKeyed(KeyedEvent event) {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        bus.register(listener);
+        bus.post(new KeyedEvent(0, 0));
+
+        assertEquals(1, bus.getQuarantinedHandlers(bus.shardIndex(new KeyedEvent(0, 0))).size());
+        assertTrue(bus.getQuarantinedHandlers(bus.shardIndex(new KeyedEvent(1, 0))).isEmpty());
+        assertEquals(1, bus.getQuarantinedHandlers().size());
+        bus.close();
+    }
+
+    @Test
+    void frozenBusRejectsRegistration() {
+        EventBus bus = EventBus.builder().build();
+        List<String> calls = new ArrayList<>();
+
+        bus.registerAll(List.of(new IndexedListener(calls), new IndexedListener(calls)));
+        bus.freeze();
+        bus.post(new SimpleEvent());
+
+        assertTrue(bus.isFrozen());
+        assertEquals(List.of("simple", "simple"), calls);
+        assertThrows(EventException.class, () -> bus.register(new IndexedListener(calls)));
+        assertThrows(EventException.class, bus::clear);
+        bus.close();
+    }
+
+    @Test
+    void listenerIndexRoundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ListenerIndex.write(out, IndexedListener.class);
+        ListenerIndex index = ListenerIndex.read(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(index.contains(IndexedListener.class));
+
+        EventBus bus = EventBus.builder().listenerIndex(index).build();
+        List<String> calls = new ArrayList<>();
+
+        bus.register(new IndexedListener(calls));
+        bus.post(new SimpleEvent());
+        bus.post(new ShutdownEvent());
+
+        assertEquals(List.of("simple", "shutdown"), calls);
+        bus.close();
+    }
+
+    @Test
+    void dispatchIsRecordedByFlightRecorder() throws Exception {
+        EventBus bus = EventBus.builder().correlate(true).build();
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                bus.post(new ShutdownEvent());
+            }
+
+            @EventListener(event = EventList.SHUT_DOWN)
+            public void onShutdown() {
+            }
+        };
+
+        bus.register(listener);
+        Path file = Files.createTempFile("eventsystem", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("nep.timeline.EventSystem.Post");
+            recording.enable("nep.timeline.EventSystem.Handler");
+            recording.start();
+            bus.post(new SimpleEvent());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.deleteIfExists(file);
+        Set<Long> correlationIds = new HashSet<>();
+        int posts = 0;
+        int handlers = 0;
+        for (RecordedEvent recorded : events) {
+            String name = recorded.getEventType().getName();
+            if (name.equals("nep.timeline.EventSystem.Post")) {
+                posts++;
+            } else if (name.equals("nep.timeline.EventSystem.Handler")) {
+                handlers++;
+            } else {
+                continue;
+            }
+            correlationIds.add(recorded.getLong("correlationId"));
+        }
+
+        assertEquals(2, posts);
+        assertEquals(2, handlers);
+        assertEquals(1, correlationIds.size());
+        bus.close();
+    }
+
+    @Test
+    void eventLoopChildPostInheritsCorrelationId() {
+        EventBus bus = EventBus.builder().eventLoop(true).correlate(true).build();
+        AtomicReference<EventCore> child = new AtomicReference<>();
+
+        Object listener = new Object() {
+            @EventListener
+            public void onSimple(SimpleEvent event) {
+                ShutdownEvent shutdown = new ShutdownEvent();
+                child.set(shutdown);
+                bus.post(shutdown);
+            }
+        };
+
+        bus.register(listener);
+        SimpleEvent parent = new SimpleEvent();
+        bus.post(parent);
+        bus.close();
+
+        assertTrue(parent.getCorrelationId() != 0);
+        assertEquals(parent.getCorrelationId(), child.get().getCorrelationId());
+    }
+
+    @Test
+    void asyncQueueIsRecordedWithoutPostEvent() throws Exception {
+        EventBus bus = EventBus.builder().build();
+
+        Object listener = new Object() {
+            @EventListener(async = true)
+            public void onSimple(SimpleEvent event) {
+            }
+        };
+
+        bus.register(listener);
+        Path file = Files.createTempFile("eventsystem", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("nep.timeline.EventSystem.AsyncQueue");
+            recording.start();
+            bus.post(new SimpleEvent());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        long queued = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("nep.timeline.EventSystem.AsyncQueue"))
+                .count();
+        Files.deleteIfExists(file);
+
+        assertEquals(1, queued);
+        bus.close();
+    }
+
+    @Test
+    void cancellationRecordsOnlyMatchingSkippedHandlers() throws Exception {
+        EventBus bus = EventBus.builder().stopOnCancelled(true).build();
+
+        Object listener = new Object() {
+            @EventListener(priority = EventPriority.HIGHEST)
+            public void cancel(SimpleEvent event) {
+                event.setCancelled(true);
+            }
+
+            @EventListener(priority = EventPriority.LOW)
+            public void skipped(SimpleEvent event) {
+            }
+
+            @EventListener(priority = EventPriority.LOW, ignoreCancelled = true)
+            public void ignoresCancelled(SimpleEvent event) {
+            }
+
+            @EventListener(event = EventList.SHUT_DOWN, priority = EventPriority.LOWEST)
+            public void otherChannel() {
+            }
+        };
+
+        bus.register(listener);
+        Path file = Files.createTempFile("eventsystem", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("nep.timeline.EventSystem.Cancelled");
+            recording.start();
+            bus.post(new SimpleEvent());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<Integer> skipped = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("nep.timeline.EventSystem.Cancelled"))
+                .map(recorded -> recorded.getInt("skippedHandlers"))
+                .toList();
+        Files.deleteIfExists(file);
+
+        assertEquals(List.of(1), skipped);
+        bus.close();
+    }
+
+    @Test
+    void staleListenerIndexFallsBackToScanning() throws Exception {
+        String stale = "nep.timeline.EventSystem.test.EventBusTest$IndexedListener\t"
+                + "nep.timeline.EventSystem.test.EventBusTest$IndexedListener\tonSimple\t"
+                + "nep.timeline.EventSystem.test.EventBusTest$SimpleEvent\tNONE\tLOWEST\tfalse\tfalse\n";
+        ListenerIndex index = ListenerIndex.read(new ByteArrayInputStream(stale.getBytes(StandardCharsets.UTF_8)));
+        EventBus bus = EventBus.builder().listenerIndex(index).build();
+        List<String> calls = new ArrayList<>();
+
+        bus.register(new IndexedListener(calls));
+        bus.post(new SimpleEvent());
+        bus.post(new ShutdownEvent());
+
+        assertEquals(List.of("simple", "shutdown"), calls);
+        bus.close();
+    }
+
+    @Test
+    void trustedListenerIndexResolvesAndRejectsMalformedLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ListenerIndex.write(out, IndexedListener.class);
+        ListenerIndex index = ListenerIndex.read(new ByteArrayInputStream(out.toByteArray())).trusted();
+        assertTrue(index.isTrusted());
+
+        EventBus bus = EventBus.builder().listenerIndex(index).build();
+        List<String> calls = new ArrayList<>();
+
+        bus.register(new IndexedListener(calls));
+        bus.post(new SimpleEvent());
+        bus.post(new ShutdownEvent());
+
+        assertEquals(List.of("simple", "shutdown"), calls);
+        bus.close();
+
+        String malformed = "nep.timeline.EventSystem.test.EventBusTest$IndexedListener\t"
+                + "nep.timeline.EventSystem.test.EventBusTest$IndexedListener\tonSimple\t-\tNONE\tURGENT\tfalse\tfalse\n";
+        assertThrows(EventException.class,
+                () -> ListenerIndex.read(new ByteArrayInputStream(malformed.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void publisherClosesOnFrozenBus() {
+        EventBus bus = EventBus.builder().build();
+        EventPublisher<SimpleEvent> publisher = bus.publisher(SimpleEvent.class);
+        bus.freeze(SimpleEvent.class);
+
+        publisher.close();
+
+        assertEquals(0, publisher.getSubscriberCount());
+        assertThrows(EventException.class, () -> bus.publisher(SimpleEvent.class));
+        bus.close();
+    }
 }